@@ -0,0 +1,315 @@
+package de.kruesmann.repositorymapping.database;
+
+import de.kruesmann.repositorymapping.entities.EntityValue;
+import de.kruesmann.repositorymapping.entities.Sql;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * Result of a columnar read, every {@link EntityValue} column is held in primitive arrays indexed by row
+ */
+public class ColumnarResult {
+    @Getter
+    private int size;
+    private final Map<String, Column> columns = new LinkedHashMap<>();
+
+    ColumnarResult(List<EntityValue> entityValues, int initialCapacity) {
+        entityValues.forEach(elem -> columns.put(elem.value(), Column.of(elem.type(), initialCapacity)));
+    }
+
+    /**
+     * @return the column names of {@link EntityValue#value()} in the order of the entity
+     */
+    public Set<String> getColumnNames() {
+        return Collections.unmodifiableSet(columns.keySet());
+    }
+
+    /**
+     * @param name   the column name of {@link EntityValue#value()}
+     * @param column the expected column type
+     * @return the column
+     */
+    public <C extends Column> C getColumn(String name, Class<C> column) {
+        Column value = columns.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Column not found " + name);
+        }
+        return column.cast(value);
+    }
+
+    /**
+     * Reads all rows of the result set, the arrays grow by half of their capacity and are trimmed to the size at the end
+     *
+     * @param resultSet the columns in the same order as the entity values
+     */
+    void read(ResultSet resultSet) throws SQLException {
+        List<Column> values = new ArrayList<>(columns.values());
+        while (resultSet.next()) {
+            if (size == values.getFirst().capacity()) {
+                int capacity = size + Math.max(1, size >> 1);
+                for (Column column : values) {
+                    column.grow(capacity);
+                }
+            }
+            for (int i = 0; i < values.size(); i++) {
+                values.get(i).read(resultSet, i + 1, size);
+            }
+            size++;
+        }
+        for (Column column : values) {
+            column.finish(size);
+        }
+    }
+
+    public abstract static class Column {
+        protected final BitSet nulls = new BitSet();
+
+        public boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        abstract int capacity();
+
+        abstract void grow(int capacity);
+
+        abstract void read(ResultSet resultSet, int index, int row) throws SQLException;
+
+        /**
+         * Trims the column to the read rows
+         */
+        void finish(int size) {
+            grow(size);
+        }
+
+        private static Column of(Sql.Types type, int capacity) {
+            return switch (type) {
+                case INT -> new IntColumn(capacity);
+                case BIGINT, DATE, TIME, TIMESTAMP -> new LongColumn(capacity, type);
+                case DOUBLE -> new DoubleColumn(capacity);
+                case BOOLEAN -> new BooleanColumn(capacity);
+                case VARCHAR -> new StringColumn(capacity);
+                case BIG_DECIMAL -> new DecimalColumn(capacity);
+            };
+        }
+    }
+
+    @Getter
+    public static class IntColumn extends Column {
+        private int[] values;
+
+        IntColumn(int capacity) {
+            values = new int[capacity];
+        }
+
+        @Override
+        int capacity() {
+            return values.length;
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void read(ResultSet resultSet, int index, int row) throws SQLException {
+            values[row] = resultSet.getInt(index);
+            nulls.set(row, resultSet.wasNull());
+        }
+    }
+
+    /**
+     * BIGINT values, DATE, TIME and TIMESTAMP as milliseconds since epoch
+     */
+    @Getter
+    public static class LongColumn extends Column {
+        private long[] values;
+        private final Sql.Types type;
+
+        LongColumn(int capacity, Sql.Types type) {
+            this.values = new long[capacity];
+            this.type = type;
+        }
+
+        @Override
+        int capacity() {
+            return values.length;
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void read(ResultSet resultSet, int index, int row) throws SQLException {
+            switch (type) {
+                case BIGINT -> {
+                    values[row] = resultSet.getLong(index);
+                    nulls.set(row, resultSet.wasNull());
+                }
+                case DATE -> {
+                    java.sql.Date date = resultSet.getDate(index);
+                    setTime(row, date == null ? null : date.getTime());
+                }
+                case TIME -> {
+                    java.sql.Time time = resultSet.getTime(index);
+                    setTime(row, time == null ? null : time.getTime());
+                }
+                default -> {
+                    Timestamp timestamp = resultSet.getTimestamp(index);
+                    setTime(row, timestamp == null ? null : timestamp.getTime());
+                }
+            }
+        }
+
+        private void setTime(int row, Long time) {
+            values[row] = time == null ? 0 : time;
+            nulls.set(row, time == null);
+        }
+    }
+
+    @Getter
+    public static class DoubleColumn extends Column {
+        private double[] values;
+
+        DoubleColumn(int capacity) {
+            values = new double[capacity];
+        }
+
+        @Override
+        int capacity() {
+            return values.length;
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void read(ResultSet resultSet, int index, int row) throws SQLException {
+            values[row] = resultSet.getDouble(index);
+            nulls.set(row, resultSet.wasNull());
+        }
+    }
+
+    public static class BooleanColumn extends Column {
+        @Getter
+        private final BitSet values = new BitSet();
+        private int capacity;
+
+        BooleanColumn(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public boolean get(int row) {
+            return values.get(row);
+        }
+
+        @Override
+        int capacity() {
+            return capacity;
+        }
+
+        @Override
+        void grow(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        void read(ResultSet resultSet, int index, int row) throws SQLException {
+            values.set(row, resultSet.getBoolean(index));
+            nulls.set(row, resultSet.wasNull());
+        }
+    }
+
+    /**
+     * Dictionary encoded strings, every distinct value is held once
+     */
+    public static class StringColumn extends Column {
+        @Getter
+        private int[] codes;
+        private final List<String> dictionary = new ArrayList<>();
+        private Map<String, Integer> lookup = new HashMap<>();
+
+        StringColumn(int capacity) {
+            codes = new int[capacity];
+        }
+
+        public String get(int row) {
+            return isNull(row) ? null : dictionary.get(codes[row]);
+        }
+
+        /**
+         * @return the distinct values, indexed by the codes
+         */
+        public List<String> getDictionary() {
+            return Collections.unmodifiableList(dictionary);
+        }
+
+        @Override
+        int capacity() {
+            return codes.length;
+        }
+
+        @Override
+        void grow(int capacity) {
+            codes = Arrays.copyOf(codes, capacity);
+        }
+
+        @Override
+        void finish(int size) {
+            super.finish(size);
+            //only needed while reading
+            lookup = null;
+        }
+
+        @Override
+        void read(ResultSet resultSet, int index, int row) throws SQLException {
+            String value = resultSet.getString(index);
+            if (value == null) {
+                nulls.set(row);
+                return;
+            }
+            nulls.clear(row);
+            codes[row] = lookup.computeIfAbsent(value, elem -> {
+                dictionary.add(elem);
+                return dictionary.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * BIG_DECIMAL keeps its exact value, there is no primitive representation
+     */
+    @Getter
+    public static class DecimalColumn extends Column {
+        private BigDecimal[] values;
+
+        DecimalColumn(int capacity) {
+            values = new BigDecimal[capacity];
+        }
+
+        @Override
+        int capacity() {
+            return values.length;
+        }
+
+        @Override
+        void grow(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void read(ResultSet resultSet, int index, int row) throws SQLException {
+            values[row] = resultSet.getBigDecimal(index);
+            nulls.set(row, values[row] == null);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import lombok.Getter;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
 
 @Getter
 public class Condition {
@@ -50,4 +51,12 @@ public class Condition {
         this.condition += "( " + condition.getCondition() +") ";
         return this;
     }
+
+    /**
+     * @param alias the alias of an Entity
+     * @return whether a column of the alias is part of the condition, another alias ending with it does not count
+     */
+    boolean references(String alias){
+        return condition != null && Pattern.compile("\\b" + Pattern.quote(alias + ".")).matcher(condition).find();
+    }
 }
@@ -0,0 +1,91 @@
+package de.kruesmann.repositorymapping.database;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lines of comma separated values, an empty unquoted value is null and an empty quoted value is an empty String
+ */
+final class Csv {
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+
+    private Csv() {
+    }
+
+    /**
+     * @param values of one row, may contain null
+     * @return the line including the line break
+     */
+    static String line(List<String> values) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                builder.append(SEPARATOR);
+            }
+            String value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            if (value.isEmpty() || value.indexOf(SEPARATOR) >= 0 || value.indexOf(QUOTE) >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                builder.append(QUOTE).append(value.replace("\"", "\"\"")).append(QUOTE);
+            } else {
+                builder.append(value);
+            }
+        }
+        return builder.append('\n').toString();
+    }
+
+    /**
+     * Reads one row, quoted values may contain line breaks and blank lines are skipped
+     *
+     * @param reader the file
+     * @return the values of the row or null at the end of the file
+     */
+    static List<String> read(BufferedReader reader) throws IOException {
+        int current = reader.read();
+        //blank lines hold no row
+        while (current == '\n' || current == '\r') {
+            current = reader.read();
+        }
+        if (current == -1) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        while (current != -1) {
+            char character = (char) current;
+            if (quoted) {
+                if (character == QUOTE) {
+                    reader.mark(1);
+                    if (reader.read() == QUOTE) {
+                        value.append(QUOTE);
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    value.append(character);
+                }
+            } else if (character == QUOTE) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (character == SEPARATOR) {
+                values.add(wasQuoted || !value.isEmpty() ? value.toString() : null);
+                value.setLength(0);
+                wasQuoted = false;
+            } else if (character == '\n') {
+                break;
+            } else if (character != '\r') {
+                value.append(character);
+            }
+            current = reader.read();
+        }
+        values.add(wasQuoted || !value.isEmpty() ? value.toString() : null);
+        return values;
+    }
+}
@@ -2,30 +2,77 @@ package de.kruesmann.repositorymapping.database;
 
 import de.kruesmann.repositorymapping.entities.Entity;
 import de.kruesmann.repositorymapping.entities.EntityValue;
+import de.kruesmann.repositorymapping.entities.OneToMany;
 import de.kruesmann.repositorymapping.entities.OneToOne;
+import de.kruesmann.repositorymapping.entities.Sql;
+import de.kruesmann.repositorymapping.entities.Watermark;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.data.util.Pair;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public abstract class EntityFinderImpl implements EntityFinder {
 
+    private final DataSource dataSource;
     private final Connection connection;
+    private final Map<Class<?>, ApproximateCount> approximateCounts = new ConcurrentHashMap<>();
+    /**
+     * Lets the MySQL driver stream rows one by one instead of loading the whole result into memory
+     */
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+    /**
+     * Below the default of 10 connections of the Hikari pool
+     */
+    private static final int DEFAULT_PARALLELISM = 4;
+    private static final int COLUMNAR_INITIAL_CAPACITY = 4096;
+    private static final int TRANSFER_CHUNK_SIZE = 1000;
+    private static final int TRANSFER_QUEUE_CAPACITY = 8;
+    private static final int TRANSFER_BUFFER_SIZE = 1 << 16;
+    private static final int TRANSFER_POLL_MILLIS = 100;
     private static final RuntimeException METHOD_FIELD_MATCHING_EXCEPTION = new IllegalStateException("No Method and Field is matching");
 
 
     EntityFinderImpl(JdbcTemplate jdbcTemplate) throws SQLException {
-        this.connection = Objects.requireNonNull(jdbcTemplate.getDataSource()).getConnection();
+        this.dataSource = Objects.requireNonNull(jdbcTemplate.getDataSource());
+        this.connection = dataSource.getConnection();
     }
 
     public <T> List<T> findAll(Class<? extends T> tClass) {
@@ -109,6 +156,270 @@ public abstract class EntityFinderImpl implements EntityFinder {
     }
 
 
+    @Override
+    public <T> void findAllParallel(Class<? extends T> tClass, Consumer<? super T> consumer) {
+        findAllParallel(tClass, Condition.empty(), Runtime.getRuntime().availableProcessors(), consumer);
+    }
+
+    @Override
+    public <T> void findAllParallel(Class<? extends T> tClass, Condition condition, Integer partitions, Consumer<? super T> consumer) {
+        validate(tClass);
+        Entity entity = tClass.getAnnotation(Entity.class);
+        List<Field> declaredFields = Stream.of(tClass.getDeclaredFields()).toList();
+        Field primaryField = declaredFields.stream()
+                .filter(field -> field.isAnnotationPresent(EntityValue.class) && field.getAnnotation(EntityValue.class).primary())
+                .findFirst()
+                .orElseThrow(() -> primaryKeyNptFoundException(entity));
+        EntityValue primary = primaryField.getAnnotation(EntityValue.class);
+        String merge = getMerge(entity.alias(), declaredFields);
+        String selectItems = getColumnsSelect(declaredFields, entity.alias());
+        if (partitions <= 1 || !isRangePartitionable(primary.type())) {
+            //one range streamed on one pooled connection
+            String select = condition.getValues().isEmpty()
+                    ? String.format("Select %s from %s as %s %s", selectItems, entity.table(), entity.alias(), merge)
+                    : String.format("Select %s from %s as %s %s where %s", selectItems, entity.table(), entity.alias(), merge, condition.getCondition());
+            try {
+                scanPartition(select, condition.getValues(), entity, tClass, consumer);
+            } catch (SQLException | ReflectiveOperationException e) {
+                throw new RuntimeException(e);
+            }
+            return;
+        }
+
+        String primaryColumn = entity.alias() + "." + primary.value();
+        long min;
+        long max;
+        try (PreparedStatement preparedStatement = connection.prepareStatement(String.format("Select min(%s), max(%s) from %s as %s", primaryColumn, primaryColumn, entity.table(), entity.alias()));
+             ResultSet resultSet = preparedStatement.executeQuery()) {
+            resultSet.next();
+            min = resultSet.getLong(1);
+            if (resultSet.wasNull()) {
+                //empty table
+                return;
+            }
+            max = resultSet.getLong(2);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+
+        String where = condition.getValues().isEmpty()
+                ? String.format("%s >= ? and %s <= ?", primaryColumn, primaryColumn)
+                : String.format("%s >= ? and %s <= ? and (%s)", primaryColumn, primaryColumn, condition.getCondition());
+        String select = String.format("Select %s from %s as %s %s where %s", selectItems, entity.table(), entity.alias(), merge, where);
+
+        //keys may span more than Long.MAX_VALUE, the bounds are calculated without overflow
+        BigInteger upper = BigInteger.valueOf(max);
+        BigInteger rangeSize = upper.subtract(BigInteger.valueOf(min)).add(BigInteger.ONE)
+                .add(BigInteger.valueOf(partitions - 1))
+                .divide(BigInteger.valueOf(partitions));
+        //ranges wait for a free connection, at most getParallelism() are read at the same time
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.min(partitions, getParallelism()), Thread.ofVirtual().factory())) {
+            CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+            List<Future<Void>> futures = new ArrayList<>();
+            for (BigInteger lower = BigInteger.valueOf(min); lower.compareTo(upper) <= 0; lower = lower.add(rangeSize)) {
+                List<Object> parameters = new ArrayList<>();
+                parameters.add(lower.longValueExact());
+                parameters.add(lower.add(rangeSize).subtract(BigInteger.ONE).min(upper).longValueExact());
+                parameters.addAll(condition.getValues());
+                futures.add(completionService.submit(() -> {
+                    scanPartition(select, parameters, entity, tClass, consumer);
+                    return null;
+                }));
+            }
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    completionService.take().get();
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                futures.forEach(future -> future.cancel(true));
+                throw e;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Streams one primary key range on its own connection of the pool,
+     * {@link OneToMany} references are loaded on a second one as the first holds the streamed result
+     *
+     * @param select     the select with the range and condition parameters
+     * @param parameters the bounds of the range, inclusive, followed by the values of the condition
+     * @param consumer   receives every mapped entity of the range
+     */
+    private <T> void scanPartition(String select, List<Object> parameters, Entity entity, Class<? extends T> tClass, Consumer<? super T> consumer) throws SQLException, ReflectiveOperationException {
+        boolean hasOneToMany = Arrays.stream(tClass.getDeclaredFields()).anyMatch(elem -> elem.isAnnotationPresent(OneToMany.class));
+        try (Connection partitionConnection = dataSource.getConnection();
+             Connection childConnection = hasOneToMany ? dataSource.getConnection() : null;
+             PreparedStatement preparedStatement = partitionConnection.prepareStatement(select, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            preparedStatement.setFetchSize(STREAMING_FETCH_SIZE);
+            for (int i = 0; i < parameters.size(); i++) {
+                preparedStatement.setObject(i + 1, parameters.get(i));
+            }
+            int batchSize = getOneToManyBatchSize(tClass);
+            List<T> batch = new ArrayList<>(batchSize);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        //another range failed, stop without reading the rest of the streamed rows
+                        preparedStatement.cancel();
+                        return;
+                    }
+                    batch.add(mapFrom(resultSet, tClass.getDeclaredConstructor().newInstance(), entity));
+                    if (batch.size() == batchSize) {
+                        acceptBatch(batch, tClass, childConnection, consumer);
+                    }
+                }
+            }
+            acceptBatch(batch, tClass, childConnection, consumer);
+        }
+    }
+
+    private boolean isRangePartitionable(Sql.Types type) {
+        return type == Sql.Types.INT || type == Sql.Types.BIGINT;
+    }
+
+    /**
+     * Every range of {@link #findAllParallel(Class, Condition, Integer, Consumer)} holds a pooled connection while it is read
+     * and a second one for the {@link OneToMany} references, the finder itself holds one more
+     *
+     * @return the maximum of ranges read at the same time, 2 * parallelism + 1 must not exceed the size of the connection pool
+     */
+    protected int getParallelism() {
+        return DEFAULT_PARALLELISM;
+    }
+
+
+    @Override
+    public <T> ColumnarResult findAllColumnar(Class<? extends T> tClass) {
+        return findAllColumnar(tClass, Condition.empty(), COLUMNAR_INITIAL_CAPACITY);
+    }
+
+    @Override
+    public <T> ColumnarResult findAllColumnar(Class<? extends T> tClass, Condition condition, Integer initialCapacity) {
+        validate(tClass);
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Initial capacity must be positive, but was " + initialCapacity);
+        }
+        Entity entity = tClass.getAnnotation(Entity.class);
+        List<EntityValue> entityValues = Stream.of(tClass.getDeclaredFields())
+                .filter(elem -> elem.isAnnotationPresent(EntityValue.class))
+                .map(elem -> elem.getDeclaredAnnotation(EntityValue.class))
+                .toList();
+        String selectItems = entityValues.stream()
+                .map(elem -> entity.alias() + "." + elem.value())
+                .collect(Collectors.joining(", "));
+        //own connection, the rows are streamed into the columns
+        try (Connection columnarConnection = dataSource.getConnection()) {
+            PreparedStatement preparedStatement;
+            if (!condition.getValues().isEmpty()) {
+                preparedStatement = columnarConnection.prepareStatement(String.format("Select %s from %s as %s where %s", selectItems, entity.table(), entity.alias(), condition.getCondition()), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                for (int i = 0; i < condition.getValues().size(); i++) {
+                    preparedStatement.setObject(i + 1, condition.getValues().get(i));
+                }
+            } else {
+                preparedStatement = columnarConnection.prepareStatement(String.format("Select %s from %s as %s", selectItems, entity.table(), entity.alias()), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            }
+            preparedStatement.setFetchSize(STREAMING_FETCH_SIZE);
+            ColumnarResult result = new ColumnarResult(entityValues, initialCapacity);
+            result.read(preparedStatement.executeQuery());
+            preparedStatement.close();
+            return result;
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T, W> W findChangedSince(Class<? extends T> tClass, W watermark, Consumer<? super T> consumer) {
+        validate(tClass);
+        Entity entity = tClass.getAnnotation(Entity.class);
+        List<Field> declaredFields = Stream.of(tClass.getDeclaredFields()).toList();
+        Field watermarkField = declaredFields.stream()
+                .filter(field -> field.isAnnotationPresent(Watermark.class) && field.isAnnotationPresent(EntityValue.class))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Watermark not found for " + tClass.getName()));
+        EntityValue watermarkValue = watermarkField.getAnnotation(EntityValue.class);
+        Watermark watermarkConfig = watermarkField.getAnnotation(Watermark.class);
+        String merge = getMerge(entity.alias(), declaredFields);
+        String selectItems = getColumnsSelect(declaredFields, entity.alias());
+        String watermarkColumn = entity.alias() + "." + watermarkValue.value();
+
+        //own connection, so the consumer can use this finder while the rows are streamed
+        try (Connection changeConnection = dataSource.getConnection()) {
+            List<String> where = new ArrayList<>();
+            List<Object> parameters = new ArrayList<>();
+            W newWatermark = watermark;
+            switch (watermarkValue.type()) {
+                case INT, BIGINT -> {
+                    //versions below the watermark may have been committed after the last call, they are read again
+                    if (watermark != null) {
+                        where.add(watermarkColumn + " > ?");
+                        parameters.add(((Number) watermark).longValue() - watermarkConfig.overlap());
+                    }
+                }
+                case DATE, TIMESTAMP -> {
+                    //rows younger than the lag may belong to open transactions, they are left for the next call
+                    Timestamp now;
+                    try (PreparedStatement preparedStatement = changeConnection.prepareStatement("Select current_timestamp(3)");
+                         ResultSet resultSet = preparedStatement.executeQuery()) {
+                        resultSet.next();
+                        now = resultSet.getTimestamp(1);
+                    }
+                    Timestamp upper = new Timestamp(now.getTime() - watermarkConfig.lagSeconds() * 1000);
+                    newWatermark = (W) (watermarkValue.type() == Sql.Types.DATE ? java.sql.Date.valueOf(upper.toLocalDateTime().toLocalDate()) : upper);
+                    if (watermark != null && !((java.util.Date) newWatermark).after((java.util.Date) watermark)) {
+                        return watermark;
+                    }
+                    if (watermark != null) {
+                        where.add(watermarkColumn + " >= ?");
+                        parameters.add(watermark);
+                    }
+                    where.add(watermarkColumn + " < ?");
+                    parameters.add(newWatermark);
+                }
+                default -> throw new IllegalStateException(String.format("Watermark of %s must be INT, BIGINT, DATE or TIMESTAMP", tClass.getName()));
+            }
+
+            String select = String.format("Select %s from %s as %s %s", selectItems, entity.table(), entity.alias(), merge);
+            if (!where.isEmpty()) {
+                select += " where " + String.join(" and ", where);
+            }
+            PreparedStatement preparedStatement = changeConnection.prepareStatement(select + " order by " + watermarkColumn, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            for (int i = 0; i < parameters.size(); i++) {
+                preparedStatement.setObject(i + 1, parameters.get(i));
+            }
+            preparedStatement.setFetchSize(STREAMING_FETCH_SIZE);
+            int batchSize = getOneToManyBatchSize(tClass);
+            List<T> batch = new ArrayList<>(batchSize);
+            ResultSet resultSet = preparedStatement.executeQuery();
+            while (resultSet.next()) {
+                batch.add(mapFrom(resultSet, tClass.getDeclaredConstructor().newInstance(), entity));
+                if (watermarkValue.type() == Sql.Types.INT || watermarkValue.type() == Sql.Types.BIGINT) {
+                    Number version = (Number) readValue(resultSet, watermarkColumn, watermarkValue.type());
+                    if (newWatermark == null || version.longValue() > ((Number) newWatermark).longValue()) {
+                        newWatermark = (W) version;
+                    }
+                }
+                if (batch.size() == batchSize) {
+                    acceptBatch(batch, tClass, connection, consumer);
+                }
+            }
+            acceptBatch(batch, tClass, connection, consumer);
+            preparedStatement.close();
+            return newWatermark;
+        } catch (SQLException | NoSuchMethodException | InvocationTargetException | InstantiationException |
+                 IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+
     @Override
     public <T> Integer count(Class<? extends T> tClass) {
         return count(tClass, Condition.empty());
@@ -119,27 +430,18 @@ public abstract class EntityFinderImpl implements EntityFinder {
         validate(tClass);
         Entity entity = tClass.getAnnotation(Entity.class);
         List<Field> declaredFields = Stream.of(tClass.getDeclaredFields()).toList();
-        String merge = getMerge(entity.alias(), declaredFields);
-        String order = String.join(", ", getOrder());
 
         try {
             PreparedStatement preparedStatement;
             if (!condition.getValues().isEmpty()) {
-                if (!order.isEmpty()) {
-                    preparedStatement = connection.prepareStatement(String.format("Select count(*) from %s as %s %s where %s order by %s", entity.table(), entity.alias(), merge, condition.getCondition(), order));
-                } else {
-                    preparedStatement = connection.prepareStatement(String.format("Select count(*) from %s as %s %s where %s", entity.table(), entity.alias(), merge, condition.getCondition()));
-                }
+                //left joins on the unique key of the other entity do not change the count, only the referenced ones are needed
+                String merge = getMerge(entity.alias(), declaredFields, condition);
+                preparedStatement = connection.prepareStatement(String.format("Select count(*) from %s as %s %s where %s", entity.table(), entity.alias(), merge, condition.getCondition()));
                 for (int i = 0; i < condition.getValues().size(); i++) {
                     preparedStatement.setObject(i + 1, condition.getValues().get(i));
                 }
             } else {
-                if (!order.isEmpty()) {
-                    preparedStatement = connection.prepareStatement(String.format("Select count(*) from %s as %s %s order by %s", entity.table(), entity.alias(), merge, order));
-
-                } else {
-                    preparedStatement = connection.prepareStatement(String.format("Select count(*) from %s as %s %s", entity.table(), entity.alias(), merge));
-                }
+                preparedStatement = connection.prepareStatement(String.format("Select count(*) from %s as %s", entity.table(), entity.alias()));
             }
             ResultSet resultSet = preparedStatement.executeQuery();
             resultSet.next();
@@ -153,6 +455,39 @@ public abstract class EntityFinderImpl implements EntityFinder {
 
     }
 
+    @Override
+    public <T> Integer approximateCount(Class<? extends T> tClass, Duration maxAge) {
+        validate(tClass);
+        ApproximateCount cached = approximateCounts.get(tClass);
+        if (cached != null && cached.created().plus(maxAge).isAfter(Instant.now())) {
+            return cached.count();
+        }
+        Entity entity = tClass.getAnnotation(Entity.class);
+        Integer count = null;
+        try (PreparedStatement preparedStatement = connection.prepareStatement("Select TABLE_ROWS from information_schema.TABLES where TABLE_SCHEMA = database() and TABLE_NAME = ?")) {
+            preparedStatement.setString(1, entity.table());
+            ResultSet resultSet = preparedStatement.executeQuery();
+            if (resultSet.next()) {
+                long tableRows = resultSet.getLong(1);
+                //tables without analyzed statistics report 0, the exact count is used for them
+                if (!resultSet.wasNull() && tableRows > 0) {
+                    count = (int) Math.min(Integer.MAX_VALUE, tableRows);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        if (count == null) {
+            //no statistics available, the exact count is reused for maxAge as well
+            count = count(tClass);
+        }
+        approximateCounts.put(tClass, new ApproximateCount(count, Instant.now()));
+        return count;
+    }
+
+    private record ApproximateCount(Integer count, Instant created) {
+    }
+
     private String capitalizeFirstLetter(String value) {
         return value.substring(0, 1).toUpperCase() + value.substring(1);
 
@@ -365,6 +700,260 @@ public abstract class EntityFinderImpl implements EntityFinder {
         }
     }
 
+    @Override
+    public <T> Long exportTo(Class<? extends T> tClass, Path file) {
+        validate(tClass);
+        Entity entity = tClass.getAnnotation(Entity.class);
+        List<Pair<String, Sql.Types>> columns = getColumnsTransfer(tClass);
+        String select = String.format("Select %s from %s as %s", columns.stream().map(elem -> entity.alias() + "." + elem.getFirst()).collect(Collectors.joining(", ")), entity.table(), entity.alias());
+        BlockingQueue<List<String>> lines = new ArrayBlockingQueue<>(TRANSFER_QUEUE_CAPACITY);
+
+        //reading and formatting of the rows runs beside the writing of the file
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), TRANSFER_BUFFER_SIZE)) {
+                Future<Long> reader = executor.submit(() -> exportRows(select, entity, columns, lines));
+                writer.write(Csv.line(columns.stream().map(Pair::getFirst).toList()));
+                List<String> chunk;
+                while (!(chunk = take(lines, List.of(reader))).isEmpty()) {
+                    for (String line : chunk) {
+                        writer.write(line);
+                    }
+                }
+                return reader.get();
+            } finally {
+                //stops the reader if writing failed, it is already finished otherwise
+                executor.shutdownNow();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw transferFailure(e);
+        }
+    }
+
+    /**
+     * Streams the rows on an own connection, formatted as lines in chunks
+     *
+     * @param lines receives the chunks, an empty chunk marks the end
+     * @return the count of rows
+     */
+    private Long exportRows(String select, Entity entity, List<Pair<String, Sql.Types>> columns, BlockingQueue<List<String>> lines) throws SQLException, InterruptedException {
+        long count = 0;
+        try (Connection exportConnection = dataSource.getConnection();
+             PreparedStatement preparedStatement = exportConnection.prepareStatement(select, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            preparedStatement.setFetchSize(STREAMING_FETCH_SIZE);
+            ResultSet resultSet = preparedStatement.executeQuery();
+            try {
+                List<String> chunk = new ArrayList<>(TRANSFER_CHUNK_SIZE);
+                List<String> values = new ArrayList<>(columns.size());
+                while (resultSet.next()) {
+                    values.clear();
+                    for (Pair<String, Sql.Types> column : columns) {
+                        Object value = readValue(resultSet, entity.alias() + "." + column.getFirst(), column.getSecond());
+                        values.add(resultSet.wasNull() ? null : value.toString());
+                    }
+                    chunk.add(Csv.line(values));
+                    count++;
+                    if (chunk.size() == TRANSFER_CHUNK_SIZE) {
+                        lines.put(chunk);
+                        chunk = new ArrayList<>(TRANSFER_CHUNK_SIZE);
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    lines.put(chunk);
+                }
+                lines.put(List.of());
+            } catch (InterruptedException e) {
+                //writing failed, stop the query instead of reading the rest of the streamed rows
+                preparedStatement.cancel();
+                throw e;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public <T> Long importFrom(Class<? extends T> tClass, Path file, Integer batchSize) {
+        validate(tClass);
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive, but was " + batchSize);
+        }
+        Entity entity = tClass.getAnnotation(Entity.class);
+        List<Pair<String, Sql.Types>> columns = getColumnsTransfer(tClass);
+        BlockingQueue<List<List<String>>> records = new ArrayBlockingQueue<>(TRANSFER_QUEUE_CAPACITY);
+        BlockingQueue<List<Object[]>> rows = new ArrayBlockingQueue<>(TRANSFER_QUEUE_CAPACITY);
+
+        //reader -> mapper -> insert, each stage is bounded by its queue
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            try {
+                Future<?> reader = executor.submit(() -> {
+                    importRecords(file, columns, batchSize, records);
+                    return null;
+                });
+                Future<?> mapper = executor.submit(() -> {
+                    importRows(columns, records, reader, rows);
+                    return null;
+                });
+
+                StringJoiner parameter = new StringJoiner(",", "(", ")");
+                columns.forEach(_ -> parameter.add("?"));
+                String insert = "insert into " + entity.table() + " (" + columns.stream().map(Pair::getFirst).collect(Collectors.joining(", ")) + ") values ";
+                String insertBatch = insert + String.join(",", Collections.nCopies(batchSize, parameter.toString()));
+
+                long count = 0;
+                try (PreparedStatement batchStatement = connection.prepareStatement(insertBatch)) {
+                    List<Object[]> chunk;
+                    while (!(chunk = take(rows, List.of(mapper))).isEmpty()) {
+                        if (chunk.size() == batchSize) {
+                            insertRows(batchStatement, chunk);
+                        } else {
+                            try (PreparedStatement preparedStatement = connection.prepareStatement(insert + String.join(",", Collections.nCopies(chunk.size(), parameter.toString())))) {
+                                insertRows(preparedStatement, chunk);
+                            }
+                        }
+                        count += chunk.size();
+                    }
+                }
+                return count;
+            } finally {
+                //stops the reader and the mapper if a stage failed, they are already finished otherwise
+                executor.shutdownNow();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw transferFailure(e);
+        }
+    }
+
+    /**
+     * Reads the file in chunks of records
+     *
+     * @param records receives the chunks, an empty chunk marks the end
+     */
+    private void importRecords(Path file, List<Pair<String, Sql.Types>> columns, int batchSize, BlockingQueue<List<List<String>>> records) throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8), TRANSFER_BUFFER_SIZE)) {
+            List<String> header = Csv.read(reader);
+            List<String> expected = columns.stream().map(Pair::getFirst).toList();
+            if (!expected.equals(header)) {
+                throw new IllegalStateException(String.format("Columns %s of %s do not match %s", header, file, expected));
+            }
+            List<List<String>> chunk = new ArrayList<>(batchSize);
+            List<String> record;
+            while ((record = Csv.read(reader)) != null) {
+                chunk.add(record);
+                if (chunk.size() == batchSize) {
+                    records.put(chunk);
+                    chunk = new ArrayList<>(batchSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                records.put(chunk);
+            }
+            records.put(List.of());
+        }
+    }
+
+    /**
+     * Parses the records to the values of the columns
+     *
+     * @param reader the stage filling the records
+     * @param rows   receives the chunks, an empty chunk marks the end
+     */
+    private void importRows(List<Pair<String, Sql.Types>> columns, BlockingQueue<List<List<String>>> records, Future<?> reader, BlockingQueue<List<Object[]>> rows) throws InterruptedException, ExecutionException {
+        List<List<String>> chunk;
+        while (!(chunk = take(records, List.of(reader))).isEmpty()) {
+            List<Object[]> values = new ArrayList<>(chunk.size());
+            for (List<String> record : chunk) {
+                if (record.size() != columns.size()) {
+                    throw new IllegalStateException(String.format("Expected %s values but found %s", columns.size(), record.size()));
+                }
+                Object[] row = new Object[columns.size()];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = parseValue(record.get(i), columns.get(i).getSecond());
+                }
+                values.add(row);
+            }
+            rows.put(values);
+        }
+        rows.put(List.of());
+    }
+
+    /**
+     * Takes the next chunk, a failed stage ends no queue with an end marker and is rethrown instead
+     *
+     * @param stages the stages filling the queue
+     * @return the chunk, empty at the end
+     */
+    private static <E> E take(BlockingQueue<E> queue, List<? extends Future<?>> stages) throws InterruptedException, ExecutionException {
+        while (true) {
+            E chunk = queue.poll(TRANSFER_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (chunk != null) {
+                return chunk;
+            }
+            for (Future<?> stage : stages) {
+                if (stage.isDone()) {
+                    stage.get();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the first failure of the stages, a stage failing because of the stage before is unwrapped
+     */
+    private static RuntimeException transferFailure(ExecutionException e) {
+        Throwable cause = e.getCause();
+        while (cause instanceof ExecutionException) {
+            cause = cause.getCause();
+        }
+        return new RuntimeException(cause);
+    }
+
+    private void insertRows(PreparedStatement preparedStatement, List<Object[]> rows) throws SQLException {
+        int index = 1;
+        for (Object[] row : rows) {
+            for (Object value : row) {
+                preparedStatement.setObject(index++, value);
+            }
+        }
+        preparedStatement.executeUpdate();
+    }
+
+    /**
+     * @param tClass the class
+     * @return the columns of the table itself, {@link OneToOne} references as foreign key with the type of the referenced primary key
+     */
+    private List<Pair<String, Sql.Types>> getColumnsTransfer(Class<?> tClass) {
+        List<Field> fields = Arrays.stream(tClass.getDeclaredFields()).toList();
+        List<Pair<String, Sql.Types>> columns = new ArrayList<>();
+        fields.stream().
+                filter(elem -> elem.isAnnotationPresent(EntityValue.class)).
+                map(elem -> elem.getDeclaredAnnotation(EntityValue.class)).
+                forEach(elem -> columns.add(Pair.of(elem.value(), elem.type())));
+
+        //other classes
+        fields.stream().
+                filter(elem -> elem.isAnnotationPresent(OneToOne.class)).
+                forEach(elem -> {
+                    EntityValue primary = Arrays.stream(elem.getType().getDeclaredFields())
+                            .filter(field -> field.isAnnotationPresent(EntityValue.class) && field.getAnnotation(EntityValue.class).primary())
+                            .map(field -> field.getAnnotation(EntityValue.class))
+                            .findFirst()
+                            .orElseThrow(() -> primaryKeyNptFoundException(elem.getType().getAnnotation(Entity.class)));
+                    columns.add(Pair.of(elem.getDeclaredAnnotation(OneToOne.class).foreignKey(), primary.type()));
+                });
+        return columns;
+    }
+
     private boolean compareGet(Method method, Field field) {
         return method.getName().equals("get" + capitalizeFirstLetter(field.getName()));
     }
@@ -462,6 +1051,18 @@ public abstract class EntityFinderImpl implements EntityFinder {
                 collect(Collectors.joining());
     }
 
+    /**
+     * @param condition the where clause
+     * @return only the joins whose alias is referenced by the condition
+     */
+    private String getMerge(String primaryAlias, List<Field> declaredFields, Condition condition) {
+        List<Field> referenced = declaredFields.stream().
+                filter(elem -> elem.isAnnotationPresent(OneToOne.class)).
+                filter(elem -> condition.references(elem.getType().getAnnotation(Entity.class).alias())).
+                toList();
+        return getMerge(primaryAlias, referenced);
+    }
+
     /**
      * @param array  setter
      * @param values annotations of attribute
@@ -510,14 +1111,7 @@ public abstract class EntityFinderImpl implements EntityFinder {
             );
             for (int i = 0; i < Math.min(declaredMethods.length, entityValueList.size()); i++) {
                 String format = String.format("%s.%s", entity.alias(), entityValueList.get(i).value());
-                switch (entityValueList.get(i).type()) {
-                    case INT -> declaredMethods[i].invoke(tClass, resultSet.getInt(format));
-                    case VARCHAR -> declaredMethods[i].invoke(tClass, resultSet.getString(format));
-                    case BIG_DECIMAL -> declaredMethods[i].invoke(tClass, resultSet.getBigDecimal(format));
-                    case BOOLEAN -> declaredMethods[i].invoke(tClass, resultSet.getBoolean(format));
-                    case TIME -> declaredMethods[i].invoke(tClass, resultSet.getTime(format));
-                    case TIMESTAMP -> declaredMethods[i].invoke(tClass, resultSet.getTimestamp(format));
-                }
+                declaredMethods[i].invoke(tClass, readValue(resultSet, format, entityValueList.get(i).type()));
             }
             for (Class<?> aClass1 : oneToOneClass) {
                 Entity annotation = aClass1.getAnnotation(Entity.class);
@@ -533,6 +1127,48 @@ public abstract class EntityFinderImpl implements EntityFinder {
         }
     }
 
+    /**
+     * @param resultSet Set from Database
+     * @param column    alias and name of the column
+     * @param type      the type of the column
+     * @return the value of the column
+     */
+    private Object readValue(ResultSet resultSet, String column, Sql.Types type) throws SQLException {
+        return switch (type) {
+            case INT -> resultSet.getInt(column);
+            case BIGINT -> resultSet.getLong(column);
+            case DOUBLE -> resultSet.getDouble(column);
+            case VARCHAR -> resultSet.getString(column);
+            case BIG_DECIMAL -> resultSet.getBigDecimal(column);
+            case BOOLEAN -> resultSet.getBoolean(column);
+            case DATE -> resultSet.getDate(column);
+            case TIME -> resultSet.getTime(column);
+            case TIMESTAMP -> resultSet.getTimestamp(column);
+        };
+    }
+
+    /**
+     * @param value the text written by {@link #exportTo(Class, Path)}
+     * @param type  the type of the column
+     * @return the value of the column
+     */
+    private Object parseValue(String value, Sql.Types type) {
+        if (value == null) {
+            return null;
+        }
+        return switch (type) {
+            case INT -> Integer.valueOf(value);
+            case BIGINT -> Long.valueOf(value);
+            case DOUBLE -> Double.valueOf(value);
+            case VARCHAR -> value;
+            case BIG_DECIMAL -> new BigDecimal(value);
+            case BOOLEAN -> Boolean.valueOf(value);
+            case DATE -> java.sql.Date.valueOf(value);
+            case TIME -> Time.valueOf(value);
+            case TIMESTAMP -> Timestamp.valueOf(value);
+        };
+    }
+
     @org.jetbrains.annotations.NotNull
     private <T> List<T> mapFromAsList(ResultSet resultSet, Entity entity, Class<? extends T> tClass) throws SQLException, NoSuchMethodException, InvocationTargetException, InstantiationException, IllegalAccessException {
         List<T> result = new ArrayList<>();
@@ -540,9 +1176,106 @@ public abstract class EntityFinderImpl implements EntityFinder {
             T value = mapFrom(resultSet, tClass.getDeclaredConstructor().newInstance(), entity);
             result.add(value);
         }
+        loadOneToMany(result, tClass, connection, new HashMap<>());
         return result;
     }
 
+    /**
+     * @param tClass the class of the streamed entities
+     * @return the entities to collect before their {@link OneToMany} references are loaded, 1 without references
+     */
+    private int getOneToManyBatchSize(Class<?> tClass) {
+        return Arrays.stream(tClass.getDeclaredFields())
+                .filter(elem -> elem.isAnnotationPresent(OneToMany.class))
+                .mapToInt(elem -> Math.max(1, elem.getAnnotation(OneToMany.class).batchSize()))
+                .max()
+                .orElse(1);
+    }
+
+    /**
+     * Loads the {@link OneToMany} references of streamed entities and hands them to the consumer
+     *
+     * @param batch           emptied afterwards
+     * @param childConnection not the one of the streamed result, null if the class has no {@link OneToMany} references
+     */
+    private <T> void acceptBatch(List<T> batch, Class<?> tClass, Connection childConnection, Consumer<? super T> consumer) throws SQLException, NoSuchMethodException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        loadOneToMany(batch, tClass, childConnection, new HashMap<>());
+        batch.forEach(consumer);
+        batch.clear();
+    }
+
+    /**
+     * Loads the {@link OneToMany} references of all parents with one query per batch of primary keys.
+     * The children of a key are read once per field, entities reached again through a cycle get the already read list
+     *
+     * @param parents         the already read entities
+     * @param tClass          the class of the parents
+     * @param childConnection the connection the children are read on
+     * @param loaded          the children per primary key of every already read field
+     */
+    private <T> void loadOneToMany(List<T> parents, Class<?> tClass, Connection childConnection, Map<Field, Map<Object, List<Object>>> loaded) throws SQLException, NoSuchMethodException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        List<Field> oneToManyFields = Arrays.stream(tClass.getDeclaredFields()).filter(elem -> elem.isAnnotationPresent(OneToMany.class)).toList();
+        if (parents.isEmpty() || oneToManyFields.isEmpty()) {
+            return;
+        }
+        Field primaryField = Arrays.stream(tClass.getDeclaredFields())
+                .filter(elem -> elem.isAnnotationPresent(EntityValue.class) && elem.getAnnotation(EntityValue.class).primary())
+                .findFirst()
+                .orElseThrow(() -> primaryKeyNptFoundException(tClass.getAnnotation(Entity.class)));
+        Method primaryMethod = Arrays.stream(tClass.getMethods())
+                .filter(method -> compareGet(method, primaryField))
+                .findFirst()
+                .orElseThrow(() -> METHOD_FIELD_MATCHING_EXCEPTION);
+        List<Object> parentKeys = new ArrayList<>();
+        for (T parent : parents) {
+            parentKeys.add(primaryMethod.invoke(parent));
+        }
+
+        for (Field field : oneToManyFields) {
+            OneToMany oneToMany = field.getAnnotation(OneToMany.class);
+            Class<?> childClass = (Class<?>) ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+            validate(childClass);
+            Entity childEntity = childClass.getAnnotation(Entity.class);
+            List<Field> childFields = Stream.of(childClass.getDeclaredFields()).toList();
+            String foreignColumn = childEntity.alias() + "." + oneToMany.foreignKey();
+            String merge = getMerge(childEntity.alias(), childFields);
+            String selectItems = getColumnsSelect(childFields, childEntity.alias()) + ", " + foreignColumn;
+            Method setter = Arrays.stream(tClass.getMethods())
+                    .filter(method -> method.getName().equals("set" + capitalizeFirstLetter(field.getName())))
+                    .findFirst()
+                    .orElseThrow(() -> METHOD_FIELD_MATCHING_EXCEPTION);
+
+            Map<Object, List<Object>> childrenByKey = loaded.computeIfAbsent(field, _ -> new HashMap<>());
+            //keys read before, also further up a cycle, are not read again
+            List<Object> primaryKeys = parentKeys.stream().filter(elem -> elem != null && !childrenByKey.containsKey(elem)).distinct().toList();
+            primaryKeys.forEach(elem -> childrenByKey.put(elem, new ArrayList<>()));
+            List<Object> children = new ArrayList<>();
+            int batchSize = Math.max(1, oneToMany.batchSize());
+            for (int from = 0; from < primaryKeys.size(); from += batchSize) {
+                List<Object> batch = primaryKeys.subList(from, Math.min(primaryKeys.size(), from + batchSize));
+                String in = batch.stream().map(_ -> "?").collect(Collectors.joining(","));
+                PreparedStatement preparedStatement = childConnection.prepareStatement(String.format("Select %s from %s as %s %s where %s in (%s)", selectItems, childEntity.table(), childEntity.alias(), merge, foreignColumn, in));
+                for (int i = 0; i < batch.size(); i++) {
+                    preparedStatement.setObject(i + 1, batch.get(i));
+                }
+                ResultSet resultSet = preparedStatement.executeQuery();
+                while (resultSet.next()) {
+                    Object child = mapFrom(resultSet, childClass.getDeclaredConstructor().newInstance(), childEntity);
+                    Object foreignKey = readValue(resultSet, foreignColumn, primaryField.getAnnotation(EntityValue.class).type());
+                    childrenByKey.computeIfAbsent(foreignKey, _ -> new ArrayList<>()).add(child);
+                    children.add(child);
+                }
+                preparedStatement.close();
+            }
+            loadOneToMany(children, childClass, childConnection, loaded);
+
+            for (int i = 0; i < parents.size(); i++) {
+                Object primaryKey = parentKeys.get(i);
+                setter.invoke(parents.get(i), primaryKey == null ? new ArrayList<>() : childrenByKey.get(primaryKey));
+            }
+        }
+    }
+
     private static IllegalStateException primaryKeyNptFoundException(Entity entity){
         return new IllegalStateException(String.format("Primary key for Entity %s not found", entity.table()));
     }
@@ -1,6 +1,8 @@
 package de.kruesmann.repositorymapping.database;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ReadFinder {
     /**
@@ -40,6 +42,64 @@ public interface ReadFinder {
      */
     <T> List<T> findAll(Class<? extends T> tClass, Condition condition, Integer limit, Integer offset);
 
+    /**
+     * Reads all entities in parallel, one range per available processor
+     * @param tClass the class
+     * @param consumer receives the entities, called concurrently from several threads
+     * @param <T> the type
+     */
+    <T> void findAllParallel(Class<? extends T> tClass, Consumer<? super T> consumer);
+
+    /**
+     * Splits the table into ranges of the primary key and reads every range on its own pooled connection.
+     * Only {@link de.kruesmann.repositorymapping.entities.Sql.Types#INT} and {@link de.kruesmann.repositorymapping.entities.Sql.Types#BIGINT}
+     * primary keys can be split, other entities are streamed on one pooled connection.
+     * @param tClass the class
+     * @param condition the where clause
+     * @param partitions the number of ranges, only a few of them are read at the same time to stay within the connection pool
+     * @param consumer receives the entities, called concurrently from several threads
+     * @param <T> the type
+     */
+    <T> void findAllParallel(Class<? extends T> tClass, Condition condition, Integer partitions, Consumer<? super T> consumer);
+
+    /**
+     *
+     * @param tClass the class
+     * @return all values of the columns of type T, without creating an entity per row
+     * @param <T> the type
+     */
+    <T> ColumnarResult findAllColumnar(Class<? extends T> tClass);
+
+    /**
+     * Streams only the {@link de.kruesmann.repositorymapping.entities.EntityValue} columns of the table itself on an own pooled connection,
+     * {@link de.kruesmann.repositorymapping.entities.OneToOne} references are not joined
+     * @param tClass the class
+     * @param condition the where clause
+     * @param initialCapacity the rows the column arrays are created for, they grow by half of their capacity when full
+     * @return all values of the columns of type T with a condition
+     * @param <T> the type
+     */
+    <T> ColumnarResult findAllColumnar(Class<? extends T> tClass, Condition condition, Integer initialCapacity);
+
+    /**
+     * Streams the entities whose {@link de.kruesmann.repositorymapping.entities.Watermark} column changed since the watermark,
+     * ordered by that column. The column must increase across the whole table, a version of its own row is not enough.
+     * Entities may be received again by a later call, deleted rows are not tracked.
+     * DATE and TIMESTAMP watermarks read up to the current time of the database minus
+     * {@link de.kruesmann.repositorymapping.entities.Watermark#lagSeconds()} and return that bound,
+     * DATE watermarks therefore hold back the changes of the current day until the next day,
+     * INT and BIGINT watermarks read {@link de.kruesmann.repositorymapping.entities.Watermark#overlap()} versions again
+     * and return the highest read version.
+     * @param tClass the class
+     * @param watermark the last returned watermark, null to read all entities
+     * @param consumer receives the changed entities
+     * @return the watermark for the next call. It is of the type read from the column, Integer for INT, Long for BIGINT,
+     * {@link java.sql.Date} for DATE and {@link java.sql.Timestamp} for TIMESTAMP, another W fails with a ClassCastException at the call
+     * @param <T> the type
+     * @param <W> the type of the watermark column
+     */
+    <T, W> W findChangedSince(Class<? extends T> tClass, W watermark, Consumer<? super T> consumer);
+
     /**
      *
      * @param tClass the class
@@ -56,4 +116,15 @@ public interface ReadFinder {
      * @param <T> the type
      */
     <T> Integer count(Class<? extends T> tClass, Condition condition);
+
+    /**
+     * Uses the row statistics of the table, falls back to {@link #count(Class)} if there are none or they report no rows.
+     * MySQL caches the statistics for information_schema_stats_expiry, one day by default, so the value can be up to a day old
+     * regardless of maxAge
+     * @param tClass the class
+     * @param maxAge how long a value is reused before the statistics or the table are read again
+     * @return the estimated count of all entities of type T
+     * @param <T> the type
+     */
+    <T> Integer approximateCount(Class<? extends T> tClass, Duration maxAge);
 }
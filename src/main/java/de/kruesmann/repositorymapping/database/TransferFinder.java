@@ -0,0 +1,25 @@
+package de.kruesmann.repositorymapping.database;
+
+import java.nio.file.Path;
+
+public interface TransferFinder {
+    /**
+     * Streams all rows of the table into a CSV file, the first line holds the column names
+     * @param tClass the class
+     * @param file the file to write, replaced if it exists
+     * @return the count of exported rows
+     * @param <T> the type
+     */
+    <T> Long exportTo(Class<? extends T> tClass, Path file);
+
+    /**
+     * Reads a CSV file written by {@link #exportTo(Class, Path)} in chunks and inserts every chunk with one statement.
+     * Chunks inserted before a failure stay in the table.
+     * @param tClass the class
+     * @param file the file to read
+     * @param batchSize the rows of one insert
+     * @return the count of imported rows
+     * @param <T> the type
+     */
+    <T> Long importFrom(Class<? extends T> tClass, Path file, Integer batchSize);
+}
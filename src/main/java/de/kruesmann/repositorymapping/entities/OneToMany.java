@@ -0,0 +1,17 @@
+package de.kruesmann.repositorymapping.entities;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * References a list of other Entities, whose foreign key points to the primary key of this Entity.
+ * The children of all read entities are loaded with one query per batch of primary keys.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OneToMany {
+    String foreignKey();
+    int batchSize() default 500;
+}
@@ -5,8 +5,11 @@ public class Sql {
     public enum Types {
         VARCHAR,
         INT,
+        BIGINT,
+        DOUBLE,
         BOOLEAN,
         BIG_DECIMAL,
+        DATE,
         TIME,
         TIMESTAMP,
     }
@@ -0,0 +1,28 @@
+package de.kruesmann.repositorymapping.entities;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the {@link EntityValue} which is set on every change of a row to a value above all values of the whole table,
+ * like an updated-at timestamp or a number taken from a global sequence. A version counting the changes of its own row only,
+ * like an optimistic lock, does not work, its rows are missed once the watermark is above their version.
+ * The type of the column must be INT, BIGINT, DATE or TIMESTAMP.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Watermark {
+    /**
+     * DATE and TIMESTAMP: rows younger than this are read by the next call, it must exceed the longest transaction.
+     * DATE only reads up to the day before, the changes of a day are held back until the next day.
+     */
+    long lagSeconds() default 60;
+
+    /**
+     * INT and BIGINT: the versions below the last watermark that are read again, it must exceed the versions
+     * assigned during the longest transaction
+     */
+    long overlap() default 100;
+}
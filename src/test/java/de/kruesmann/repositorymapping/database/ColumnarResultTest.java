@@ -0,0 +1,153 @@
+package de.kruesmann.repositorymapping.database;
+
+import de.kruesmann.repositorymapping.entities.EntityValue;
+import de.kruesmann.repositorymapping.entities.Sql;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.RETURNS_DEFAULTS;
+import static org.mockito.Mockito.mock;
+
+class ColumnarResultTest {
+
+    @SuppressWarnings("unused")
+    private static class Row {
+        @EntityValue(value = "Id", type = Sql.Types.INT, primary = true)
+        private Integer id;
+        @EntityValue(value = "Amount", type = Sql.Types.BIGINT)
+        private Long amount;
+        @EntityValue(value = "Rate", type = Sql.Types.DOUBLE)
+        private Double rate;
+        @EntityValue(value = "Active", type = Sql.Types.BOOLEAN)
+        private Boolean active;
+        @EntityValue(value = "Name")
+        private String name;
+        @EntityValue(value = "Price", type = Sql.Types.BIG_DECIMAL)
+        private BigDecimal price;
+        @EntityValue(value = "Changed", type = Sql.Types.TIMESTAMP)
+        private Timestamp changed;
+    }
+
+    private static final Object[][] ROWS = {
+            {1, 10L, 1.5, true, "a", new BigDecimal("1.10"), new Timestamp(1000)},
+            {2, null, null, false, "b", null, null},
+            {null, 30L, 3.5, null, "a", new BigDecimal("3.30"), new Timestamp(3000)},
+            {4, 40L, 4.5, true, null, new BigDecimal("4.40"), new Timestamp(4000)},
+            {5, 50L, 5.5, false, "b", new BigDecimal("5.50"), new Timestamp(5000)},
+    };
+
+    @Test
+    void readGrowsBeyondInitialCapacityAndTrims() throws SQLException {
+        ColumnarResult result = read(2);
+
+        assertEquals(5, result.getSize());
+        assertEquals(List.of("Id", "Amount", "Rate", "Active", "Name", "Price", "Changed"), List.copyOf(result.getColumnNames()));
+        assertArrayEquals(new int[]{1, 2, 0, 4, 5}, result.getColumn("Id", ColumnarResult.IntColumn.class).getValues());
+        assertArrayEquals(new long[]{10, 0, 30, 40, 50}, result.getColumn("Amount", ColumnarResult.LongColumn.class).getValues());
+        assertArrayEquals(new double[]{1.5, 0, 3.5, 4.5, 5.5}, result.getColumn("Rate", ColumnarResult.DoubleColumn.class).getValues());
+        assertArrayEquals(new long[]{1000, 0, 3000, 4000, 5000}, result.getColumn("Changed", ColumnarResult.LongColumn.class).getValues());
+        assertEquals(5, result.getColumn("Price", ColumnarResult.DecimalColumn.class).getValues().length);
+    }
+
+    @Test
+    void readSetsNullBitmapsOfEveryColumnKind() throws SQLException {
+        ColumnarResult result = read(2);
+
+        assertNulls(result.getColumn("Id", ColumnarResult.IntColumn.class), 2);
+        assertNulls(result.getColumn("Amount", ColumnarResult.LongColumn.class), 1);
+        assertNulls(result.getColumn("Rate", ColumnarResult.DoubleColumn.class), 1);
+        assertNulls(result.getColumn("Active", ColumnarResult.BooleanColumn.class), 2);
+        assertNulls(result.getColumn("Name", ColumnarResult.StringColumn.class), 3);
+        assertNulls(result.getColumn("Price", ColumnarResult.DecimalColumn.class), 1);
+        assertNulls(result.getColumn("Changed", ColumnarResult.LongColumn.class), 1);
+
+        ColumnarResult.BooleanColumn active = result.getColumn("Active", ColumnarResult.BooleanColumn.class);
+        assertTrue(active.get(0));
+        assertFalse(active.get(1));
+        assertTrue(active.get(3));
+    }
+
+    @Test
+    void readEncodesStringsWithDictionary() throws SQLException {
+        ColumnarResult.StringColumn name = read(1).getColumn("Name", ColumnarResult.StringColumn.class);
+
+        assertEquals(List.of("a", "b"), name.getDictionary());
+        assertArrayEquals(new int[]{0, 1, 0, 0, 1}, name.getCodes());
+        assertEquals(Arrays.asList("a", "b", "a", null, "b"), Stream.of(0, 1, 2, 3, 4).map(name::get).toList());
+        assertThrows(UnsupportedOperationException.class, () -> name.getDictionary().add("c"));
+    }
+
+    @Test
+    void readWithoutRowsIsEmpty() throws SQLException {
+        ColumnarResult result = new ColumnarResult(entityValues(), 4);
+        result.read(resultSet(new Object[0][]));
+
+        assertEquals(0, result.getSize());
+        assertEquals(0, result.getColumn("Id", ColumnarResult.IntColumn.class).getValues().length);
+    }
+
+    @Test
+    void unknownColumnIsRejected() throws SQLException {
+        ColumnarResult result = read(2);
+
+        assertThrows(IllegalArgumentException.class, () -> result.getColumn("Missing", ColumnarResult.IntColumn.class));
+        assertThrows(ClassCastException.class, () -> result.getColumn("Id", ColumnarResult.LongColumn.class));
+    }
+
+    private static void assertNulls(ColumnarResult.Column column, int nullRow) {
+        for (int row = 0; row < ROWS.length; row++) {
+            assertEquals(row == nullRow, column.isNull(row), "row " + row);
+        }
+    }
+
+    private static ColumnarResult read(int initialCapacity) throws SQLException {
+        ColumnarResult result = new ColumnarResult(entityValues(), initialCapacity);
+        result.read(resultSet(ROWS));
+        return result;
+    }
+
+    private static List<EntityValue> entityValues() {
+        return Stream.of(Row.class.getDeclaredFields())
+                .filter(field -> field.isAnnotationPresent(EntityValue.class))
+                .map(field -> field.getAnnotation(EntityValue.class))
+                .toList();
+    }
+
+    /**
+     * @param rows the values by row and column, null for SQL NULL
+     * @return a result set answering the getters by column index like the JDBC driver
+     */
+    private static ResultSet resultSet(Object[][] rows) {
+        int[] row = {-1};
+        Object[] last = {null};
+        return mock(ResultSet.class, invocation -> {
+            String name = invocation.getMethod().getName();
+            if (name.equals("next")) {
+                return ++row[0] < rows.length;
+            }
+            if (name.equals("wasNull")) {
+                return last[0] == null;
+            }
+            if (!name.startsWith("get")) {
+                return RETURNS_DEFAULTS.answer(invocation);
+            }
+            Object value = rows[row[0]][invocation.<Integer>getArgument(0) - 1];
+            last[0] = value;
+            return switch (name) {
+                case "getInt" -> value == null ? 0 : value;
+                case "getLong" -> value == null ? 0L : value;
+                case "getDouble" -> value == null ? 0d : value;
+                case "getBoolean" -> value != null && (Boolean) value;
+                default -> value;
+            };
+        });
+    }
+}
@@ -0,0 +1,49 @@
+package de.kruesmann.repositorymapping.database;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConditionTest {
+
+    @Test
+    void referencesAliasOfColumn() {
+        Condition condition = Condition.init("p", "FirstName", "Max").and("c", "CityName", "Berlin");
+
+        assertTrue(condition.references("p"));
+        assertTrue(condition.references("c"));
+        assertFalse(condition.references("a"));
+    }
+
+    @Test
+    void aliasPrefixIsNoReference() {
+        Condition condition = Condition.init("pa", "FirstName", "Max");
+
+        assertTrue(condition.references("pa"));
+        assertFalse(condition.references("p"));
+        assertFalse(condition.references("a"));
+        assertFalse(condition.references("spa"));
+    }
+
+    @Test
+    void aliasInsideColumnNameIsNoReference() {
+        Condition condition = Condition.init("p", "c.Name", "Max");
+
+        assertTrue(condition.references("p"));
+        assertFalse(condition.references("Name"));
+    }
+
+    @Test
+    void clippedConditionIsReferenced() {
+        Condition condition = Condition.init("p", "FirstName", "Max").and("p", "LastName", "Muster");
+        condition.clip(Condition.init("c", "CityName", "Berlin"));
+
+        assertTrue(condition.references("c"));
+    }
+
+    @Test
+    void emptyConditionReferencesNothing() {
+        assertFalse(Condition.empty().references("p"));
+    }
+}
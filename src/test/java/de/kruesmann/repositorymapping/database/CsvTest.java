@@ -0,0 +1,58 @@
+package de.kruesmann.repositorymapping.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CsvTest {
+
+    @Test
+    void nullAndEmptyStringAreDistinct() throws IOException {
+        List<String> row = Arrays.asList("1", null, "", "last");
+
+        assertEquals("1,,\"\",last\n", Csv.line(row));
+        assertEquals(List.of(row), readAll(Csv.line(row)));
+    }
+
+    @Test
+    void quotesSeparatorsAndLineBreaksRoundTrip() throws IOException {
+        List<String> first = Arrays.asList("say \"hi\"", "a,b", "line\nbreak", "carriage\r\nreturn", "\"");
+        List<String> second = Arrays.asList("plain", null, "x", "", "\"\"");
+
+        assertEquals(List.of(first, second), readAll(Csv.line(first) + Csv.line(second)));
+    }
+
+    @Test
+    void blankLinesAreSkipped() throws IOException {
+        assertEquals(List.of(List.of("a", "b"), List.of("c", "d")), readAll("\na,b\r\n\r\n\nc,d\n\n"));
+    }
+
+    @Test
+    void lastLineWithoutLineBreakIsRead() throws IOException {
+        assertEquals(List.of(List.of("a", "b")), readAll("a,b"));
+    }
+
+    @Test
+    void endOfFileReturnsNull() throws IOException {
+        assertNull(Csv.read(new BufferedReader(new StringReader(""))));
+        assertNull(Csv.read(new BufferedReader(new StringReader("\n\r\n"))));
+    }
+
+    private static List<List<String>> readAll(String content) throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader(content));
+        List<List<String>> rows = new ArrayList<>();
+        List<String> row;
+        while ((row = Csv.read(reader)) != null) {
+            rows.add(row);
+        }
+        return rows;
+    }
+}